@@ -0,0 +1,130 @@
+package lambda;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Decides how ListHolder.applyAdaptive should run a lambda function over its elements.
+ *
+ * The holder times the function on its first few elements, then the policy picks:
+ *   SEQUENTIAL       if the rest is too little work to be worth starting other threads
+ *   FORK_JOIN        if the function is busy computing, so it is split across all cores
+ *   VIRTUAL_THREADS  if the function mostly waits (e.g., for I/O), so many small parts
+ *                    can wait at the same time without tying up the cores
+ * Every decision is counted and the latest one is kept, so they can be checked later.
+ */
+class AdaptivePolicy {
+    // how ListHolder.applyAdaptive runs the rest of the elements
+    enum Strategy {
+        SEQUENTIAL,
+        FORK_JOIN,
+        VIRTUAL_THREADS
+    }
+
+    // number of elements timed before deciding
+    public static final int SAMPLE_SIZE = 32;
+    // less work than this is faster to do than to split up
+    private static final long PARALLEL_NANOS = 1_000_000;
+    // each part should take about this long
+    private static final long PART_NANOS = 100_000;
+    // slow functions still get parts big enough that there are no more than this many
+    private static final int MAX_PARTS = 4096;
+    // functions that use less of the CPU than this while running are mostly waiting
+    private static final double WAITING_RATIO = 0.5;
+    // without CPU time, functions slower than this per element are assumed to be waiting
+    private static final long WAITING_NANOS = 50_000;
+
+    private final Map<Strategy, LongAdder> myCounts = new EnumMap<>(Strategy.class);
+    private volatile Decision myLastDecision;
+
+    public AdaptivePolicy () {
+        for (Strategy s : Strategy.values()) {
+            myCounts.put(s, new LongAdder());
+        }
+    }
+
+    // sampled elements were done first, wallNanos and cpuNanos are totals for all of them
+    // (cpuNanos is negative if the JVM cannot measure it)
+    public Decision choose (int size, int sampled, long wallNanos, long cpuNanos) {
+        // timed as one block, since reading the clock for each element costs more than cheap functions
+        double perElement = (sampled == 0) ? 0 : wallNanos / (double)sampled;
+        int remaining = size - sampled;
+        int partSize = (int)Math.max(1, Math.min(remaining, PART_NANOS / Math.max(perElement, 1)));
+        partSize = Math.max(partSize, (remaining + MAX_PARTS - 1) / MAX_PARTS);
+        Strategy strategy;
+        if (perElement * remaining < PARALLEL_NANOS || partSize >= remaining) {
+            strategy = Strategy.SEQUENTIAL;
+        }
+        else if (isWaiting(perElement, wallNanos, cpuNanos)) {
+            strategy = Strategy.VIRTUAL_THREADS;
+        }
+        else {
+            strategy = Strategy.FORK_JOIN;
+        }
+        Decision result = new Decision(strategy, size, perElement, partSize);
+        myCounts.get(strategy).increment();
+        myLastDecision = result;
+        return result;
+    }
+
+    // number of times the given strategy was chosen
+    public long getCount (Strategy strategy) {
+        return myCounts.get(strategy).sum();
+    }
+
+    // null until the first decision
+    public Decision getLastDecision () {
+        return myLastDecision;
+    }
+
+    public String toString () {
+        return myCounts + ", last: " + myLastDecision;
+    }
+
+    private boolean isWaiting (double perElement, long wallNanos, long cpuNanos) {
+        if (cpuNanos < 0) {
+            return perElement > WAITING_NANOS;
+        }
+        return cpuNanos < wallNanos * WAITING_RATIO;
+    }
+
+
+    // what was chosen, and what it was based on
+    public static class Decision {
+        private final Strategy myStrategy;
+        private final int mySize;
+        private final double myNanosPerElement;
+        private final int myPartSize;
+
+        public Decision (Strategy strategy, int size, double nanosPerElement, int partSize) {
+            myStrategy = strategy;
+            mySize = size;
+            myNanosPerElement = nanosPerElement;
+            myPartSize = partSize;
+        }
+
+        public Strategy getStrategy () {
+            return myStrategy;
+        }
+
+        public int getSize () {
+            return mySize;
+        }
+
+        public double getNanosPerElement () {
+            return myNanosPerElement;
+        }
+
+        // elements each thread should do at once
+        public int getPartSize () {
+            return myPartSize;
+        }
+
+        public String toString () {
+            return String.format("%s for %d elements at %.1f ns each, %d per part",
+                                 myStrategy, mySize, myNanosPerElement, myPartSize);
+        }
+    }
+}
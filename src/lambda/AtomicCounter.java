@@ -0,0 +1,54 @@
+package lambda;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * A Counter that many threads can change at the same time without losing updates.
+ *
+ * It keeps using Counter's own count, but reads and writes it through a VarHandle so that
+ * every change is a single atomic step instead of a separate read and write. No locks are
+ * used: adding is one atomic instruction, doubling retries a compare-and-set until it wins.
+ */
+class AtomicCounter extends Counter {
+    // atomic access to Counter's private count
+    static final VarHandle COUNT;
+    static {
+        try {
+            COUNT = MethodHandles.privateLookupIn(Counter.class, MethodHandles.lookup())
+                                 .findVarHandle(Counter.class, "myCount", int.class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public AtomicCounter (int value) {
+        super(value);
+    }
+
+    @Override
+    public void doSomething (int data) {
+        COUNT.getAndAdd(this, data);
+    }
+
+    @Override
+    public void doSomethingElse () {
+        int current;
+        do {
+            current = (int) COUNT.getVolatile(this);
+        }
+        while (! COUNT.compareAndSet(this, current, current * 2));
+    }
+
+    @Override
+    public int getCount () {
+        return (int) COUNT.getVolatile(this);
+    }
+
+    @Override
+    public String toString () {
+        return "" + getCount();
+    }
+}
@@ -0,0 +1,178 @@
+package lambda;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+
+/**
+ * A list stored in many small, fixed-size chunks instead of one large array.
+ *
+ * Growing it only ever allocates one more small chunk, so even huge lists never need one giant
+ * block of memory (which garbage collectors like G1 handle poorly). Copies made with share()
+ * start out using the same chunks as the original and only copy a chunk the first time either
+ * list changes it, so copying a list costs one step per chunk, not one per element, and two
+ * lists that are mostly the same also share most of their memory.
+ */
+class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+    // chunks of 1024 references are small enough for any garbage collector
+    private static final int SHIFT = 10;
+    public static final int CHUNK_SIZE = 1 << SHIFT;
+    private static final int MASK = CHUNK_SIZE - 1;
+
+    // has room for more chunks than are in use
+    private Object[][] myChunks = new Object[0][];
+    private int myChunkCount;
+    // chunks this list may change without copying them first
+    private boolean[] myIsOwned = new boolean[0];
+    private int myOwnedCount;
+    private int mySize;
+
+    public ChunkedList () {
+        // starts empty
+    }
+
+    public ChunkedList (Collection<? extends E> items) {
+        addAll(items);
+    }
+
+    // a copy that uses the same chunks as this list until one of them changes a chunk
+    public ChunkedList<E> share () {
+        ChunkedList<E> result = new ChunkedList<>();
+        result.shareFrom(this);
+        return result;
+    }
+
+    // make this list equal to the given one by using the same chunks
+    protected void shareFrom (ChunkedList<E> other) {
+        myChunks = other.myChunks.clone();
+        myChunkCount = other.myChunkCount;
+        myIsOwned = new boolean[myChunks.length];
+        myOwnedCount = 0;
+        mySize = other.mySize;
+        // from now on, neither list may change a chunk without copying it first
+        Arrays.fill(other.myIsOwned, false);
+        other.myOwnedCount = 0;
+        modCount++;
+    }
+
+    // true if no chunk has been copied or added since this list was last shared
+    protected boolean isSharingAll () {
+        return myOwnedCount == 0;
+    }
+
+    @Override
+    public int size () {
+        return mySize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get (int index) {
+        Objects.checkIndex(index, mySize);
+        return (E)myChunks[index >>> SHIFT][index & MASK];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set (int index, E element) {
+        Objects.checkIndex(index, mySize);
+        Object[] chunk = writable(index >>> SHIFT);
+        E old = (E)chunk[index & MASK];
+        chunk[index & MASK] = element;
+        return old;
+    }
+
+    // elements after index move one place to the right, a chunk at a time
+    @Override
+    public void add (int index, E element) {
+        Objects.checkIndex(index, mySize + 1);
+        if (mySize == myChunkCount * CHUNK_SIZE) {
+            grow();
+        }
+        int last = mySize >>> SHIFT;
+        Object carry = element;
+        for (int c = index >>> SHIFT, from = index & MASK; c <= last; c++, from = 0) {
+            Object[] chunk = writable(c);
+            if (c < last) {
+                Object out = chunk[MASK];
+                System.arraycopy(chunk, from, chunk, from + 1, MASK - from);
+                chunk[from] = carry;
+                carry = out;
+            }
+            else {
+                System.arraycopy(chunk, from, chunk, from + 1, (mySize & MASK) - from);
+                chunk[from] = carry;
+            }
+        }
+        mySize++;
+        modCount++;
+    }
+
+    // elements after index move one place to the left, a chunk at a time
+    @Override
+    public E remove (int index) {
+        E old = get(index);
+        int last = (mySize - 1) >>> SHIFT;
+        for (int c = index >>> SHIFT, from = index & MASK; c <= last; c++, from = 0) {
+            Object[] chunk = writable(c);
+            int used = (c < last) ? CHUNK_SIZE : ((mySize - 1) & MASK) + 1;
+            System.arraycopy(chunk, from + 1, chunk, from, used - from - 1);
+            chunk[used - 1] = (c < last) ? myChunks[c + 1][0] : null;
+        }
+        truncate(mySize - 1);
+        return old;
+    }
+
+    @Override
+    protected void removeRange (int fromIndex, int toIndex) {
+        int moved = mySize - toIndex;
+        for (int k = 0; k < moved; k++) {
+            set(fromIndex + k, get(toIndex + k));
+        }
+        truncate(fromIndex + moved);
+    }
+
+    // drop everything from size on, only the chunk where the list now ends is copied
+    private void truncate (int size) {
+        int chunks = (size + MASK) >>> SHIFT;
+        if ((size & MASK) != 0) {
+            Arrays.fill(writable(chunks - 1), size & MASK, CHUNK_SIZE, null);
+        }
+        for (int c = chunks; c < myChunkCount; c++) {
+            if (myIsOwned[c]) {
+                myOwnedCount--;
+            }
+            myChunks[c] = null;
+            myIsOwned[c] = false;
+        }
+        myChunkCount = chunks;
+        mySize = size;
+        modCount++;
+    }
+
+    // add one empty chunk, the table of chunks doubles when it is full
+    private void grow () {
+        if (myChunkCount == myChunks.length) {
+            int capacity = Math.max(4, myChunks.length * 2);
+            myChunks = Arrays.copyOf(myChunks, capacity);
+            myIsOwned = Arrays.copyOf(myIsOwned, capacity);
+        }
+        myChunks[myChunkCount] = new Object[CHUNK_SIZE];
+        myIsOwned[myChunkCount] = true;
+        myChunkCount++;
+        myOwnedCount++;
+    }
+
+    // copies a shared chunk the first time it is changed
+    private Object[] writable (int chunk) {
+        if (! myIsOwned[chunk]) {
+            myChunks[chunk] = myChunks[chunk].clone();
+            myIsOwned[chunk] = true;
+            myOwnedCount++;
+        }
+        return myChunks[chunk];
+    }
+}
@@ -0,0 +1,80 @@
+package lambda;
+
+import java.util.Iterator;
+import java.util.List;
+
+
+// a class that wants to combine its data with elements in the collection
+class Client {
+    private int myData;
+    private ListHolder<Counter> myHolder;
+
+    public Client (int data, ListHolder<Counter> holder) {
+        myData = data;
+        myHolder = holder;
+    }
+
+    public void simpleLoop () {
+        List<Counter> values = myHolder.getValues();
+        for (Counter c : values) {
+            c.doSomething(myData);
+        }
+        // BAD possible outcome
+        values.clear();
+    }
+
+    public void immutableLoop () {
+        List<Counter> values = myHolder.getImmutableValues();
+        for (Counter c : values) {
+            c.doSomething(myData);
+        }
+        // throws error
+        values.clear();
+    }
+
+    public void iteratorLoop () {
+        // standard usage
+        for (Counter c : myHolder) {
+            c.doSomething(myData);
+        }
+        // explicit usage
+        Iterator<Counter> iter = myHolder.iterator();
+        while (iter.hasNext()) {
+            Counter c = iter.next();
+            c.doSomething(myData);
+            // throws error
+            if (c.toString().startsWith("5")) {
+                iter.remove();
+            }
+        }
+    }
+
+    public void lambdaLoop () {
+        // call method with parameter directly
+        myHolder.apply(c -> c.doSomething(myData));
+        // call method with no parameters
+        myHolder.apply(Counter::doSomethingElse);
+    }
+
+    public void fusedLoop () {
+        // same calls as above, but the collection is only visited once
+        myHolder.applyAll(List.of(c -> c.doSomething(myData), Counter::doSomethingElse));
+    }
+
+    public void pipelineLoop () {
+        // only change some of the values, without getting a copy of the collection
+        myHolder.pipeline()
+                .filter(c -> c.getCount() % 3 == 0)
+                .forEach(c -> c.doSomething(myData));
+    }
+
+    public void removingLoop () {
+        // holder removes elements itself, without revealing the collection
+        myHolder.removeIf(c -> c.toString().startsWith("25"));
+        myHolder.apply(c -> c.doSomething(myData));
+    }
+
+    public String toString () {
+        return myHolder.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package lambda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+/**
+ * Runs thousands of Clients at the same time against one shared ListHolder.
+ *
+ * Each Client gets its own thread (a virtual thread when the JVM has them) and repeats
+ * its loop, timing every call. Afterwards it reports the overall throughput and the
+ * latency seen by the slowest calls, to help size a holder for a given number of callers.
+ *
+ * Usage: java lambda.ClientDriver [clients] [loops per client] [holder size]
+ */
+public class ClientDriver {
+    public static void main (String[] args) throws InterruptedException, ExecutionException {
+        int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 5_000;
+        int loops = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        int size = (args.length > 2) ? Integer.parseInt(args[2]) : 1_000;
+        // setup: counters that can be shared, holder whose readers can be shared
+        List<Counter> originals = new ArrayList<>();
+        for (int k = 0; k < size; k++) {
+            originals.add(new AtomicCounter(k));
+        }
+        ListHolder<Counter> holder = new ListHolder<>(originals, ListHolder.Mode.SNAPSHOT);
+        System.out.println(run(holder, clients, loops, Client::lambdaLoop));
+    }
+
+    // each Client calls loop the given number of times, all Clients start together
+    public static Report run (ListHolder<Counter> holder, int clients, int loops, Consumer<Client> loop)
+        throws InterruptedException, ExecutionException {
+        if (clients < 1 || loops < 1) {
+            throw new IllegalArgumentException("Need at least one client and loop: " + clients + ", " + loops);
+        }
+        // every loop's latency is kept in one array
+        if ((long)clients * loops > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many loops to keep track of: " + clients + " x " + loops);
+        }
+        long[] latencies = new long[clients * loops];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        ExecutorService threads = VirtualThreads.newThreadPerTaskExecutor();
+        try {
+            for (int k = 0; k < clients; k++) {
+                Client client = new Client(k, holder);
+                int offset = k * loops;
+                results.add(threads.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < loops; n++) {
+                        long begin = System.nanoTime();
+                        loop.accept(client);
+                        latencies[offset + n] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> r : results) {
+                // report the first Client that failed
+                r.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            return new Report(clients, elapsed, latencies);
+        }
+        finally {
+            // stops the other Clients if one failed, otherwise they are all done already
+            threads.shutdownNow();
+            threads.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+
+    // summary of one run, latencies in microseconds
+    public static class Report {
+        private final int myClients;
+        private final long myElapsed;
+        private final long[] myLatencies;
+
+        public Report (int clients, long elapsed, long[] latencies) {
+            myClients = clients;
+            myElapsed = elapsed;
+            myLatencies = latencies.clone();
+            Arrays.sort(myLatencies);
+        }
+
+        // completed loops per second, over all Clients
+        public double getThroughput () {
+            return myLatencies.length / (myElapsed / 1e9);
+        }
+
+        // latency that the given fraction of loops did not exceed, e.g., 0.99
+        public double getPercentile (double fraction) {
+            int index = (int)Math.ceil(fraction * myLatencies.length) - 1;
+            return myLatencies[Math.max(0, Math.min(index, myLatencies.length - 1))] / 1e3;
+        }
+
+        public String toString () {
+            return String.format("%d clients, %d loops in %.1f ms: %.0f loops/s, " +
+                                 "p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                                 myClients, myLatencies.length, myElapsed / 1e6, getThroughput(),
+                                 getPercentile(0.5), getPercentile(0.99), getPercentile(0.999),
+                                 getPercentile(1));
+        }
+    }
+}
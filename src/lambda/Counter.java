@@ -0,0 +1,27 @@
+package lambda;
+
+
+// a simple, mutable class
+class Counter {
+    private int myCount;
+
+    public Counter (int value) {
+        myCount = value;
+    }
+
+    public void doSomething (int data) {
+        myCount += data;
+    }
+
+    public void doSomethingElse () {
+        myCount *= 2;
+    }
+
+    public int getCount () {
+        return myCount;
+    }
+
+    public String toString () {
+        return "" + myCount;
+    }
+}
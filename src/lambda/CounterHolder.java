@@ -0,0 +1,107 @@
+package lambda;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+
+/**
+ * A holder specialized for Counter values.
+ *
+ * Instead of a list of references to separate Counter objects, the values are stored
+ * side by side in one int array, so bulk operations walk memory in order and create
+ * no garbage. Like ListHolder, it never reveals its collection to the outside world.
+ */
+class CounterHolder implements CounterValues {
+    private final int[] myCounts;
+
+    public CounterHolder (int... values) {
+        // to be truly safe, create your own version of the values
+        myCounts = values.clone();
+    }
+
+    public CounterHolder (List<Counter> counters) {
+        myCounts = new int[counters.size()];
+        for (int k = 0; k < myCounts.length; k++) {
+            myCounts[k] = counters.get(k).getCount();
+        }
+    }
+
+    @Override
+    public int size () {
+        return myCounts.length;
+    }
+
+    @Override
+    public int get (int index) {
+        return myCounts[index];
+    }
+
+    @Override
+    public void doSomething (int data) {
+        add(myCounts, data);
+    }
+
+    @Override
+    public void doSomethingElse () {
+        twice(myCounts);
+    }
+
+    // do not reveal array
+    @Override
+    public void apply (IntUnaryOperator action) {
+        int[] counts = myCounts;
+        for (int k = 0; k < counts.length; k++) {
+            counts[k] = action.applyAsInt(counts[k]);
+        }
+    }
+
+    // walks the array directly, instead of one get() at a time
+    @Override
+    public void forEach (IntConsumer action) {
+        for (int c : myCounts) {
+            action.accept(c);
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator () {
+        return new PrimitiveIterator.OfInt() {
+            private int myIndex;
+
+            @Override
+            public boolean hasNext () {
+                return myIndex < myCounts.length;
+            }
+
+            @Override
+            public int nextInt () {
+                if (! hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return myCounts[myIndex++];
+            }
+        };
+    }
+
+    // simple counted loops like these are turned into SIMD instructions by the JIT,
+    // any other operation still works through apply(), one value at a time
+    private static void add (int[] counts, int data) {
+        for (int k = 0; k < counts.length; k++) {
+            counts[k] += data;
+        }
+    }
+
+    private static void twice (int[] counts) {
+        for (int k = 0; k < counts.length; k++) {
+            counts[k] <<= 1;
+        }
+    }
+
+    public String toString () {
+        return Arrays.toString(myCounts);
+    }
+}
@@ -0,0 +1,58 @@
+package lambda;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+
+/**
+ * Counter values stored as primitives, whatever the memory they are stored in.
+ *
+ * Lets callers work the same way with any of the holders below and switch between them:
+ *   CounterHolder          an int array on the Java heap
+ *   OffHeapCounterHolder   native memory, outside of the Java heap
+ *   MappedCounterHolder    a file mapped into memory
+ * Like ListHolder, none of them ever reveals where its values are stored.
+ */
+interface CounterValues {
+    int size ();
+
+    int get (int index);
+
+    // same as calling Counter.doSomething on every value
+    void doSomething (int data);
+
+    // same as calling Counter.doSomethingElse on every value
+    void doSomethingElse ();
+
+    // accept lambda function that computes a new value from the old one, do not reveal storage
+    void apply (IntUnaryOperator action);
+
+    // accept lambda function that only looks at the values
+    default void forEach (IntConsumer action) {
+        for (int k = 0; k < size(); k++) {
+            action.accept(get(k));
+        }
+    }
+
+    // get read-only iterator over the values, no boxing
+    default PrimitiveIterator.OfInt iterator () {
+        return new PrimitiveIterator.OfInt() {
+            private int myIndex;
+
+            @Override
+            public boolean hasNext () {
+                return myIndex < size();
+            }
+
+            @Override
+            public int nextInt () {
+                if (! hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(myIndex++);
+            }
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package lambda;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+
+/**
+ * Collects lambda functions sent to a ListHolder by many callers and applies them together.
+ *
+ * The first function submitted starts a short window during which others can join it, then the
+ * whole batch is applied in a single pass over the holder: each element gets every function in
+ * the order they were submitted. So N callers cost about one pass instead of N. Each caller gets
+ * a future that completes when its batch is done, or fails with whatever its own function threw
+ * (that function is skipped for the rest of the pass, the others are not affected).
+ */
+class GroupCommitter<E> {
+    private final ListHolder<E> myHolder;
+    private final Executor myExecutor;
+    private final Queue<Request<E>> myPending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean myIsScheduled = new AtomicBoolean();
+    private volatile Duration myWindow;
+
+    public GroupCommitter (ListHolder<E> holder, Duration window, Executor executor) {
+        myHolder = holder;
+        myExecutor = executor;
+        setWindow(window);
+    }
+
+    public CompletableFuture<Void> submit (Consumer<E> action) {
+        Request<E> request = new Request<>(action);
+        myPending.add(request);
+        if (myIsScheduled.compareAndSet(false, true)) {
+            // first one in waits for others to join it
+            CompletableFuture.delayedExecutor(myWindow.toNanos(), TimeUnit.NANOSECONDS, myExecutor)
+                             .execute(this::commit);
+        }
+        return request.myResult;
+    }
+
+    public Duration getWindow () {
+        return myWindow;
+    }
+
+    public void setWindow (Duration window) {
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Batch window cannot be negative: " + window);
+        }
+        myWindow = window;
+    }
+
+    // batches are applied one at a time, anything submitted meanwhile joins the next one
+    private synchronized void commit () {
+        // anything submitted from now on schedules another batch, so nothing can be missed
+        myIsScheduled.set(false);
+        List<Request<E>> batch = new ArrayList<>();
+        for (Request<E> request = myPending.poll(); request != null; request = myPending.poll()) {
+            batch.add(request);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            // runs on the executor, so it must not touch the copy its callers may be using
+            myHolder.forEachObserved(item -> {
+                for (Request<E> request : batch) {
+                    request.accept(item);
+                }
+            });
+            for (Request<E> request : batch) {
+                request.finish();
+            }
+        }
+        catch (Throwable t) {
+            for (Request<E> request : batch) {
+                request.myResult.completeExceptionally(t);
+            }
+        }
+    }
+
+
+    // one caller's function and the future it is waiting on
+    private static class Request<E> implements Consumer<E> {
+        private final Consumer<E> myAction;
+        private final CompletableFuture<Void> myResult = new CompletableFuture<>();
+        private RuntimeException myError;
+
+        public Request (Consumer<E> action) {
+            myAction = action;
+        }
+
+        @Override
+        public void accept (E item) {
+            if (myError == null) {
+                try {
+                    myAction.accept(item);
+                }
+                catch (RuntimeException e) {
+                    myError = e;
+                }
+            }
+        }
+
+        public void finish () {
+            if (myError == null) {
+                myResult.complete(null);
+            }
+            else {
+                myResult.completeExceptionally(myError);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package lambda;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+
+/**
+ * Measures the four ways a Client can get at the elements of a ListHolder.
+ *
+ * For each holder size, element type, holder mode, and storage, every access style is warmed
+ * up and then run repeatedly for a fixed time. It reports operations per second and bytes
+ * allocated per operation, which shows how much each style pays for the copies made by the holder.
+ *
+ * The same is done for each place CounterValues can be stored, calling doSomething on all of them.
+ *
+ * Each combination runs in a JVM of its own (with the same options as this one), as JMH does,
+ * so code compiled for the ones before it, e.g., calls that only ever saw Counters, cannot
+ * make it look faster or slower than it is.
+ *
+ * Usage: java lambda.HolderBenchmark [size ...]
+ */
+public class HolderBenchmark {
+    // tells a JVM started by this class to measure just the combination that follows
+    private static final String RUN_ONE = "--run";
+    private static final String RUN_VALUES = "--values";
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+    private static final int[] DEFAULT_SIZES = { 10, 1_000, 100_000, 10_000_000 };
+
+    // every changed element ends up here, so none of the work can be left out as unused
+    private static Counter ourLast;
+    private static volatile int ourSink;
+
+    // the same work as Client's loops, without the parts that destroy or fail
+    enum Style {
+        SIMPLE(holder -> {
+            for (Counter c : holder.getValues()) {
+                consume(c);
+            }
+        }),
+        IMMUTABLE(holder -> {
+            for (Counter c : holder.getImmutableValues()) {
+                consume(c);
+            }
+        }),
+        ITERATOR(holder -> {
+            for (Counter c : holder) {
+                consume(c);
+            }
+        }),
+        LAMBDA(holder -> holder.apply(HolderBenchmark::consume));
+
+        private final Consumer<ListHolder<Counter>> myLoop;
+
+        private Style (Consumer<ListHolder<Counter>> loop) {
+            myLoop = loop;
+        }
+    }
+
+    // kinds of elements a holder can contain
+    enum Element {
+        COUNTER(Counter::new),
+        ATOMIC(AtomicCounter::new);
+
+        private final IntFunction<Counter> myMaker;
+
+        private Element (IntFunction<Counter> maker) {
+            myMaker = maker;
+        }
+    }
+
+    // places primitive Counter values can be stored
+    enum Backend {
+        HEAP,
+        OFF_HEAP,
+        MAPPED;
+
+        public CounterValues create (int[] values) throws IOException {
+            switch (this) {
+                case OFF_HEAP:
+                    return new OffHeapCounterHolder(values);
+                case MAPPED:
+                    Path file = Files.createTempFile("counters", ".bin");
+                    file.toFile().deleteOnExit();
+                    return MappedCounterHolder.create(file, values);
+                default:
+                    return new CounterHolder(values);
+            }
+        }
+    }
+
+    public static void main (String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(RUN_ONE)) {
+            runOne(Integer.parseInt(args[1]), Element.valueOf(args[2]), ListHolder.Mode.valueOf(args[3]),
+                   ListHolder.Storage.valueOf(args[4]), Style.valueOf(args[5]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals(RUN_VALUES)) {
+            runValues(Integer.parseInt(args[1]), Backend.valueOf(args[2]));
+            return;
+        }
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int k = 0; k < args.length; k++) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+        System.out.printf("%-10s %-8s %-9s %-8s %-10s %16s %14s%n",
+                          "size", "element", "mode", "storage", "style", "ops/s", "bytes/op");
+        for (int size : sizes) {
+            for (Element element : Element.values()) {
+                for (ListHolder.Mode mode : ListHolder.Mode.values()) {
+                    for (ListHolder.Storage storage : ListHolder.Storage.values()) {
+                        for (Style style : Style.values()) {
+                            fork(RUN_ONE, "" + size, element.name(), mode.name(), storage.name(), style.name());
+                        }
+                    }
+                }
+            }
+        }
+        System.out.printf("%n%-10s %-8s %16s %14s%n", "size", "backend", "ops/s", "bytes/op");
+        for (int size : sizes) {
+            for (Backend backend : Backend.values()) {
+                fork(RUN_VALUES, "" + size, backend.name());
+            }
+        }
+    }
+
+    // measures one combination in a new JVM, which prints its own result
+    private static void fork (String run, String... combination) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(HolderBenchmark.class.getName());
+        command.add(run);
+        command.addAll(Arrays.asList(combination));
+        int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (status != 0) {
+            throw new IllegalStateException("Benchmark failed with status " + status + ": " +
+                                            String.join(" ", combination));
+        }
+    }
+
+    private static void runOne (int size, Element element, ListHolder.Mode mode, ListHolder.Storage storage, Style style) {
+        List<Counter> originals = new ArrayList<>();
+        for (int k = 0; k < size; k++) {
+            originals.add(element.myMaker.apply(k));
+        }
+        ListHolder<Counter> holder = new ListHolder<>(originals, mode, storage);
+        double[] result = measure(() -> style.myLoop.accept(holder));
+        System.out.printf("%-10d %-8s %-9s %-8s %-10s %,16.1f %,14.1f%n",
+                          size, element, mode, storage, style, result[0], result[1]);
+    }
+
+    private static void runValues (int size, Backend backend) throws IOException {
+        int[] values = new int[size];
+        for (int k = 0; k < size; k++) {
+            values[k] = k;
+        }
+        CounterValues counts = backend.create(values);
+        double[] result = measure(() -> counts.doSomething(1));
+        counts.forEach(c -> ourSink += c);
+        System.out.printf("%-10d %-8s %,16.1f %,14.1f%n", size, backend, result[0], result[1]);
+        if (counts instanceof OffHeapCounterHolder) {
+            ((OffHeapCounterHolder)counts).close();
+        }
+    }
+
+    // the work done to each element, by every style
+    private static void consume (Counter c) {
+        c.doSomething(1);
+        ourLast = c;
+    }
+
+    // returns operations per second and bytes allocated per operation (NaN if unknown)
+    private static double[] measure (Runnable operation) {
+        repeat(operation, WARMUP_NANOS);
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        long count = repeat(operation, MEASURE_NANOS);
+        long elapsed = System.nanoTime() - start;
+        double perOperation = (allocated < 0) ? Double.NaN : (allocatedBytes() - allocated) / (double)count;
+        return new double[] { count / (elapsed / 1e9), perOperation };
+    }
+
+    // always runs at least once, even if that takes longer than the given time
+    private static long repeat (Runnable operation, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long count = 0;
+        do {
+            operation.run();
+            count++;
+        }
+        while (System.nanoTime() < end);
+        if (ourLast != null) {
+            ourSink += ourLast.getCount();
+        }
+        return count;
+    }
+
+    // same measure as JMH's gc profiler uses, only available on some JVMs
+    private static long allocatedBytes () {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)threads).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
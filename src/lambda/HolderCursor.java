@@ -0,0 +1,96 @@
+package lambda;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * Applies lambda functions to the elements of a ListHolder a little at a time.
+ *
+ * Each call to apply() stops after a given number of elements or amount of time and remembers
+ * where it stopped, so a caller with a deadline can do some of the work, do something else,
+ * and continue later. All calls see the same snapshot of the holder's elements, even if they
+ * are replaced in between. Every call makes progress: at least one element is done. After that
+ * the clock is checked often enough, judging by how long elements have taken so far, that a call
+ * goes over its time budget by about one element at most.
+ *
+ * The holder's views are only told about each element while the holder still has the elements
+ * the cursor started with; once they are replaced, the views are marked as out of date instead.
+ */
+class HolderCursor<E> {
+    // most elements done between looks at the clock, however fast they are
+    private static final int CLOCK_INTERVAL = 64;
+
+    private final ListHolder<E> myHolder;
+    private final List<E> myItems;
+    // holder's version when items were its elements
+    private final int myVersion;
+    private int myPosition;
+
+    // items must never change
+    public HolderCursor (ListHolder<E> holder, List<E> items, int version) {
+        myHolder = holder;
+        myItems = items;
+        myVersion = version;
+    }
+
+    // returns true if there are elements left to do
+    public boolean apply (Consumer<E> action, int maxElements) {
+        return apply(action, maxElements, null);
+    }
+
+    public boolean apply (Consumer<E> action, Duration budget) {
+        return apply(action, Integer.MAX_VALUE, budget);
+    }
+
+    // stops at whichever limit comes first, a null budget means no time limit
+    public boolean apply (Consumer<E> action, int maxElements, Duration budget) {
+        if (maxElements < 1) {
+            throw new IllegalArgumentException("Must allow at least one element: " + maxElements);
+        }
+        // views follow the holder's current elements, which may no longer be these
+        boolean isCurrent = myHolder.getVersion() == myVersion;
+        Consumer<E> observed = isCurrent ? myHolder.observed(action) : action;
+        long start = System.nanoTime();
+        long deadline = (budget == null) ? 0 : start + budget.toNanos();
+        int end = (int)Math.min(myItems.size(), (long)myPosition + maxElements);
+        int nextCheck = 1;
+        try {
+            for (int count = 0; myPosition < end; count++) {
+                if (budget != null && count == nextCheck) {
+                    long now = System.nanoTime();
+                    long left = deadline - now;
+                    if (left <= 0) {
+                        break;
+                    }
+                    // look again about when the time should run out, if elements keep taking as long
+                    long perElement = Math.max(1, (now - start) / count);
+                    nextCheck = count + (int)Math.max(1, Math.min(CLOCK_INTERVAL, left / perElement));
+                }
+                // move past the element first, so one that throws is not repeated
+                observed.accept(myItems.get(myPosition++));
+            }
+        }
+        finally {
+            // also if they were replaced while this call was running
+            if (myHolder.getVersion() != myVersion) {
+                myHolder.invalidateViews();
+            }
+        }
+        return ! isDone();
+    }
+
+    // number of elements done so far
+    public int getPosition () {
+        return myPosition;
+    }
+
+    public int size () {
+        return myItems.size();
+    }
+
+    public boolean isDone () {
+        return myPosition >= myItems.size();
+    }
+}
@@ -0,0 +1,99 @@
+package lambda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+
+/**
+ * Finds the elements of a ListHolder by a key computed from each one, e.g., a Counter's value.
+ *
+ * Elements are kept sorted by their key, so finding those with a given key, or with keys in a
+ * range, does not need to visit the rest of the collection. When apply() changes an element,
+ * only that element is moved to its new key. Each element is only kept once, even if it
+ * appears in the holder more than once.
+ *
+ * Only changes made through the holder are followed; changing elements any other way (e.g.,
+ * through getValues() or an iterator) needs a call to invalidate() afterwards, see HolderView.
+ */
+class HolderIndex<E, K extends Comparable<? super K>> extends HolderView<E> {
+    private final Function<? super E, ? extends K> myKey;
+    private final NavigableMap<K, List<E>> myElements = new TreeMap<>();
+    // key each element was filed under, to find it again after it changes
+    private final Map<E, K> myKeys = new IdentityHashMap<>();
+
+    public HolderIndex (ListHolder<E> holder, Function<? super E, ? extends K> key) {
+        super(holder);
+        myKey = key;
+    }
+
+    // elements whose key equals the given one
+    public synchronized List<E> get (K key) {
+        refresh();
+        return copy(myElements.get(key));
+    }
+
+    // elements whose keys are at least from and less than to, in order of their keys
+    public synchronized List<E> range (K from, K to) {
+        refresh();
+        List<E> result = new ArrayList<>();
+        for (List<E> matches : myElements.subMap(from, true, to, false).values()) {
+            result.addAll(matches);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    protected void clear () {
+        myElements.clear();
+        myKeys.clear();
+    }
+
+    @Override
+    protected void add (E item) {
+        if (! myKeys.containsKey(item)) {
+            file(item, keyOf(item));
+        }
+    }
+
+    @Override
+    protected void update (E item) {
+        K old = myKeys.get(item);
+        K current = keyOf(item);
+        if (old == null) {
+            file(item, current);
+        }
+        else if (old.compareTo(current) != 0) {
+            List<E> matches = myElements.get(old);
+            for (int k = 0; k < matches.size(); k++) {
+                if (matches.get(k) == item) {
+                    matches.remove(k);
+                    break;
+                }
+            }
+            if (matches.isEmpty()) {
+                myElements.remove(old);
+            }
+            file(item, current);
+        }
+    }
+
+    private void file (E item, K key) {
+        myKeys.put(item, key);
+        myElements.computeIfAbsent(key, k -> new ArrayList<>(1)).add(item);
+    }
+
+    private K keyOf (E item) {
+        return Objects.requireNonNull(myKey.apply(item), "Index keys cannot be null");
+    }
+
+    private List<E> copy (List<E> matches) {
+        return (matches == null) ? List.of() : List.copyOf(matches);
+    }
+}
@@ -0,0 +1,68 @@
+package lambda;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+
+/**
+ * A lazy series of operations on the elements of a ListHolder.
+ *
+ * Each stage only remembers what it should do. Nothing happens until a terminal operation
+ * (forEach or count) is called, then all the stages are combined into a single function and
+ * the holder visits its elements once, without building any intermediate collections.
+ */
+class HolderPipeline<E, T> {
+    private final ListHolder<E> mySource;
+    // turns a function that wants this stage's results into one that accepts the holder's elements
+    private final Function<Consumer<T>, Consumer<E>> myStages;
+
+    private HolderPipeline (ListHolder<E> source, Function<Consumer<T>, Consumer<E>> stages) {
+        mySource = source;
+        myStages = stages;
+    }
+
+    // start a pipeline with no stages
+    public static <E> HolderPipeline<E, E> of (ListHolder<E> source) {
+        return new HolderPipeline<>(source, Function.identity());
+    }
+
+    // only pass on results that pass the given test
+    public HolderPipeline<E, T> filter (Predicate<? super T> test) {
+        return then(next -> item -> {
+            if (test.test(item)) {
+                next.accept(item);
+            }
+        });
+    }
+
+    // do something with each result, then pass it on
+    public HolderPipeline<E, T> peek (Consumer<? super T> action) {
+        return then(next -> item -> {
+            action.accept(item);
+            next.accept(item);
+        });
+    }
+
+    // pass on something computed from each result instead
+    public <R> HolderPipeline<E, R> map (Function<? super T, ? extends R> mapper) {
+        return then(next -> item -> next.accept(mapper.apply(item)));
+    }
+
+    // terminal operation: visits the holder
+    public void forEach (Consumer<? super T> action) {
+        mySource.apply(myStages.apply(action::accept));
+    }
+
+    // terminal operation: visits the holder
+    public long count () {
+        long[] total = { 0 };
+        forEach(item -> total[0]++);
+        return total[0];
+    }
+
+    // new stage runs after all the current ones
+    private <R> HolderPipeline<E, R> then (Function<Consumer<R>, Consumer<T>> stage) {
+        return new HolderPipeline<>(mySource, stage.andThen(myStages));
+    }
+}
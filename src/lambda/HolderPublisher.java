@@ -0,0 +1,109 @@
+package lambda;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Pushes the elements of a ListHolder to subscribers, but only as fast as they ask for them.
+ *
+ * Each subscriber gets every element of the same unchanging snapshot, in order, from the given
+ * executor's threads, and never more elements than it has requested. So a slow subscriber
+ * (writing to disk or the network) can work through a huge holder a little at a time without
+ * anything piling up in memory or blocking the thread that created the publisher.
+ */
+class HolderPublisher<E> implements Flow.Publisher<E> {
+    private final List<E> myItems;
+    private final Executor myExecutor;
+
+    // items must never change
+    public HolderPublisher (List<E> items, Executor executor) {
+        myItems = items;
+        myExecutor = executor;
+    }
+
+    @Override
+    public void subscribe (Flow.Subscriber<? super E> subscriber) {
+        Objects.requireNonNull(subscriber);
+        ItemSubscription<E> subscription = new ItemSubscription<>(subscriber, myItems, myExecutor);
+        subscriber.onSubscribe(subscription);
+        // only start sending once the subscriber is done with onSubscribe
+        myExecutor.execute(subscription);
+    }
+
+
+    // sends one subscriber its elements, at most one thread at a time does the sending
+    private static class ItemSubscription<E> implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super E> mySubscriber;
+        private final List<E> myItems;
+        private final Executor myExecutor;
+        // how many more elements the subscriber asked for
+        private final AtomicLong myDemand = new AtomicLong();
+        // how many times sending was asked for since it last stopped
+        private final AtomicInteger myPending = new AtomicInteger(1);
+        private volatile boolean myIsCancelled;
+        private volatile Throwable myError;
+        private int myIndex;
+
+        public ItemSubscription (Flow.Subscriber<? super E> subscriber, List<E> items, Executor executor) {
+            mySubscriber = subscriber;
+            myItems = items;
+            myExecutor = executor;
+        }
+
+        @Override
+        public void request (long count) {
+            if (count <= 0) {
+                myError = new IllegalArgumentException("Must request a positive number of elements: " + count);
+            }
+            else {
+                // Long.MAX_VALUE means there is no limit anymore
+                myDemand.accumulateAndGet(count, (current, more) -> (current + more < 0) ? Long.MAX_VALUE : current + more);
+            }
+            if (myPending.getAndIncrement() == 0) {
+                myExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public void cancel () {
+            myIsCancelled = true;
+        }
+
+        // sends as many elements as were asked for, then stops until asked again
+        @Override
+        public void run () {
+            int pending = 1;
+            do {
+                if (myIsCancelled) {
+                    return;
+                }
+                if (myError != null) {
+                    myIsCancelled = true;
+                    mySubscriber.onError(myError);
+                    return;
+                }
+                long demand = myDemand.get();
+                long sent = 0;
+                while (sent < demand && myIndex < myItems.size() && ! myIsCancelled) {
+                    mySubscriber.onNext(myItems.get(myIndex++));
+                    sent++;
+                }
+                if (myIndex == myItems.size() && ! myIsCancelled) {
+                    myIsCancelled = true;
+                    mySubscriber.onComplete();
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    myDemand.addAndGet(-sent);
+                }
+                pending = myPending.addAndGet(-pending);
+            }
+            while (pending != 0);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package lambda;
+
+
+/**
+ * Something computed from the elements of a ListHolder that is kept up to date with them.
+ *
+ * The holder tells each attached view about every element its apply() has just changed, so a
+ * view can update only what changed. When the holder changes elements without telling the view
+ * about each one (e.g., applyParallel()) or the elements themselves are replaced, the view is
+ * only marked as out of date and is rebuilt from all the elements the next time it is used.
+ *
+ * A view only knows about changes made through the holder. Elements handed out by getValues(),
+ * iterators, streams, or publishers can be changed at any time, even long after they were
+ * handed out, so the view cannot keep up with them: whoever changes elements that way must
+ * call invalidate() afterwards.
+ */
+abstract class HolderView<E> {
+    private final ListHolder<E> myHolder;
+    private volatile boolean myIsStale = true;
+
+    protected HolderView (ListHolder<E> holder) {
+        myHolder = holder;
+    }
+
+    // rebuild from all the elements next time, call after changing them without the holder
+    public void invalidate () {
+        myIsStale = true;
+    }
+
+    // called by the holder after each element apply() was given
+    synchronized void changed (E item) {
+        if (! myIsStale) {
+            update(item);
+        }
+    }
+
+    // subclasses call this before using what they computed
+    protected synchronized void refresh () {
+        if (myIsStale) {
+            myIsStale = false;
+            clear();
+            myHolder.forEachUnobserved(this::add);
+        }
+    }
+
+    // forget all elements
+    protected abstract void clear ();
+
+    // element is new to this view
+    protected abstract void add (E item);
+
+    // element may have changed since it was added or last updated
+    protected abstract void update (E item);
+}
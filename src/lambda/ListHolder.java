@@ -0,0 +1,782 @@
+package lambda;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+// a class that wants to hide a collection
+class ListHolder<E> implements Iterable<E> {
+    // how the collection is shared with readers
+    enum Mode {
+        // every read first restores the shared copy from the originals
+        COPY,
+        // readers share one immutable view, copies are only rebuilt after they are changed
+        // (reading from many threads at once is safe, getValues() is still not)
+        SNAPSHOT
+    }
+
+    // how the collection is stored
+    enum Storage {
+        // one array, copies are made one element at a time
+        ARRAY,
+        // many small chunks shared between copies, only chunks that change are copied
+        CHUNKED
+    }
+
+    // holders smaller than this are not worth splitting across threads
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+    // how long applyAsync waits for other callers to join a batch
+    public static final Duration DEFAULT_BATCH_WINDOW = Duration.ofNanos(500_000);
+    // most platform threads applyAdaptive starts on JVMs without virtual threads
+    private static final int MAX_PLATFORM_THREADS = 256;
+
+    private final Mode myMode;
+    private final Storage myStorage;
+    private int myParallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private SharedItems<E> mySharedItems;
+    private volatile List<E> myOriginalItems;
+    private volatile List<E> mySnapshot;
+    private volatile int myVersion;
+    // kept up to date by apply(), the holder's other passes only mark them out of date
+    // (changes made through elements handed out by getValues(), iterators, etc. are never seen)
+    private final List<HolderView<E>> myViews = new CopyOnWriteArrayList<>();
+    private final AdaptivePolicy myPolicy = new AdaptivePolicy();
+    private volatile Duration myBatchWindow = DEFAULT_BATCH_WINDOW;
+    // only made once someone calls applyAsync
+    private volatile GroupCommitter<E> myCommitter;
+
+    public ListHolder (List<E> args) {
+        this(args, Mode.COPY);
+    }
+
+    public ListHolder (List<E> args, Mode mode) {
+        this(args, mode, Storage.ARRAY);
+    }
+
+    public ListHolder (List<E> args, Mode mode, Storage storage) {
+        myMode = mode;
+        myStorage = storage;
+        // to be truly safe, create your own version of the collection
+        publish((storage == Storage.CHUNKED) ? new ChunkedList<E>(args) : new ArrayList<E>(args));
+        reset();
+    }
+
+    // standard get method
+    public List<E> getValues () {
+        if (myMode == Mode.SNAPSHOT) {
+            // readers never touch this copy, so repair it before giving it away
+            reset();
+        }
+        return mySharedItems;
+    }
+
+    // get immutable version of the collection
+    public List<E> getImmutableValues () {
+        if (myMode == Mode.SNAPSHOT) {
+            // nobody can change it, so everyone can share it
+            return mySnapshot;
+        }
+        // can't trust the outside world
+        reset();
+        return Collections.unmodifiableList(getValues());
+    }
+
+    // get iterator view of collection only to be used within foreach loops
+    @Override
+    public Iterator<E> iterator () {
+        if (myMode == Mode.COPY) {
+            // can't trust the outside world
+            reset();
+        }
+        // walks the originals themselves, so nothing needs to be copied or wrapped
+        return new SnapshotIterator();
+    }
+
+    // accept lambda function, do not reveal collection
+    public void apply (Consumer<E> action) {
+        Consumer<E> observed = observed(action);
+        if (myMode == Mode.SNAPSHOT) {
+            // action never sees the list itself, so no copy is needed
+            mySnapshot.forEach(observed);
+            return;
+        }
+        // can't trust the outside world
+        reset();
+        mySharedItems.forEach(observed);
+        // OR:
+        // for (E c : myList) {
+        // action.accept(c);
+        // }
+    }
+
+    // remove every element that passes the given test, do not reveal collection
+    // (test is called once per element, before anything is removed)
+    public synchronized boolean removeIf (Predicate<? super E> test) {
+        List<E> originals = myOriginalItems;
+        BitSet removed = new BitSet(originals.size());
+        for (int k = 0; k < originals.size(); k++) {
+            if (test.test(originals.get(k))) {
+                removed.set(k);
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        // copy each run of kept elements at once instead of shifting after every removal
+        int first = removed.nextSetBit(0);
+        List<E> kept = keptBefore(originals, first, originals.size() - removed.cardinality());
+        for (int start = removed.nextClearBit(first); start < originals.size(); ) {
+            int end = removed.nextSetBit(start);
+            if (end < 0) {
+                end = originals.size();
+            }
+            kept.addAll(originals.subList(start, end));
+            start = removed.nextClearBit(end);
+        }
+        // readers see either all of the old elements or only the kept ones
+        publish(kept);
+        if (myMode == Mode.COPY) {
+            // getValues() gives the copy away as it is, so it must not keep the removed elements
+            reset();
+        }
+        return true;
+    }
+
+    // new list that starts with the first count of the given items
+    private List<E> keptBefore (List<E> items, int count, int capacity) {
+        if (items instanceof ChunkedList) {
+            // only the chunk where they stop needs to be copied, the ones before it are shared
+            ChunkedList<E> result = ((ChunkedList<E>)items).share();
+            result.subList(count, result.size()).clear();
+            return result;
+        }
+        List<E> result = new ArrayList<>(capacity);
+        result.addAll(items.subList(0, count));
+        return result;
+    }
+
+    // splits evenly for parallel streams, needs no copy since the originals never change
+    @Override
+    public Spliterator<E> spliterator () {
+        return new SnapshotSpliterator<>(mySnapshot);
+    }
+
+    public Stream<E> stream () {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream () {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    // combine values computed from each element without revealing the collection,
+    // large holders are split into parts that are combined in pairs on several threads
+    public long sum (ToIntFunction<? super E> value) {
+        return reductionStream().mapToInt(value).asLongStream().sum();
+    }
+
+    public int reduceInt (int identity, ToIntFunction<? super E> value, IntBinaryOperator combine) {
+        return reductionStream().mapToInt(value).reduce(identity, combine);
+    }
+
+    public long reduceLong (long identity, ToLongFunction<? super E> value, LongBinaryOperator combine) {
+        return reductionStream().mapToLong(value).reduce(identity, combine);
+    }
+
+    public double reduceDouble (double identity, ToDoubleFunction<? super E> value, DoubleBinaryOperator combine) {
+        return reductionStream().mapToDouble(value).reduce(identity, combine);
+    }
+
+    public <R> R reduce (R identity, BiFunction<R, ? super E, R> accumulate, BinaryOperator<R> combine) {
+        return reductionStream().reduce(identity, accumulate, combine);
+    }
+
+    public <R, A> R collect (Collector<? super E, A, R> collector) {
+        return reductionStream().collect(collector);
+    }
+
+    // describe work to be done on some elements, nothing happens until it is finished with forEach
+    public HolderPipeline<E, E> pipeline () {
+        return HolderPipeline.of(this);
+    }
+
+    // push elements to subscribers only as fast as they ask for them, do not reveal collection
+    public Flow.Publisher<E> publisher () {
+        return publisher(ForkJoinPool.commonPool());
+    }
+
+    public Flow.Publisher<E> publisher (Executor executor) {
+        // originals are never changed, so every subscriber sees the same snapshot
+        return new HolderPublisher<>(mySnapshot, executor);
+    }
+
+    // accept several lambda functions, each element gets all of them in order in a single pass
+    public void applyAll (List<Consumer<E>> actions) {
+        // can't trust the outside world to leave the list of actions alone either
+        List<Consumer<E>> steps = List.copyOf(actions);
+        apply(item -> {
+            for (Consumer<E> step : steps) {
+                step.accept(item);
+            }
+        });
+    }
+
+    // walk through the collection a few elements at a time, do not reveal collection
+    public HolderCursor<E> cursor () {
+        if (myMode == Mode.COPY) {
+            // can't trust the outside world
+            reset();
+        }
+        // version first, so the cursor can never think older elements are the current ones
+        int version = myVersion;
+        return new HolderCursor<>(this, mySnapshot, version);
+    }
+
+    // accept lambda function to be applied later together with those from other callers,
+    // so many callers share a single pass over the collection
+    public CompletableFuture<Void> applyAsync (Consumer<E> action) {
+        GroupCommitter<E> committer = myCommitter;
+        if (committer == null) {
+            synchronized (this) {
+                committer = myCommitter;
+                if (committer == null) {
+                    committer = new GroupCommitter<>(this, myBatchWindow, ForkJoinPool.commonPool());
+                    myCommitter = committer;
+                }
+            }
+        }
+        return committer.submit(action);
+    }
+
+    public Duration getBatchWindow () {
+        return myBatchWindow;
+    }
+
+    public synchronized void setBatchWindow (Duration window) {
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Batch window cannot be negative: " + window);
+        }
+        myBatchWindow = window;
+        if (myCommitter != null) {
+            myCommitter.setWindow(window);
+        }
+    }
+
+    // accept lambda function and run it on many elements at once, do not reveal collection
+    // (action must be safe to call from several threads at the same time)
+    public void applyParallel (Consumer<E> action) {
+        if (myMode == Mode.COPY) {
+            // can't trust the outside world
+            reset();
+        }
+        // same elements as the shared copy, but nobody else can change them
+        List<E> items = mySnapshot;
+        if (items.size() <= myParallelThreshold) {
+            items.forEach(action);
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(new ApplyTask<>(new SnapshotSpliterator<>(items),
+                                                             action, myParallelThreshold));
+        }
+        // cheaper to rebuild views once than to have every thread wait its turn to update them
+        invalidateViews();
+    }
+
+    // accept lambda function and decide how many threads to use from how long it takes,
+    // do not reveal collection (action must be safe to call from several threads at the same time)
+    public void applyAdaptive (Consumer<E> action) {
+        if (myMode == Mode.COPY) {
+            // can't trust the outside world
+            reset();
+        }
+        List<E> items = mySnapshot;
+        if (items.isEmpty()) {
+            return;
+        }
+        // time the first few elements to estimate the rest
+        ThreadMXBean clock = ManagementFactory.getThreadMXBean();
+        // supported does not mean turned on, it returns -1 when it is off
+        boolean hasCpuTime = clock.isCurrentThreadCpuTimeSupported() && clock.isThreadCpuTimeEnabled();
+        int sampled = Math.min(items.size(), AdaptivePolicy.SAMPLE_SIZE + 1);
+        // the first call to a new lambda function also links it, which is not part of its cost
+        action.accept(items.get(0));
+        long cpuStart = hasCpuTime ? clock.getCurrentThreadCpuTime() : 0;
+        long start = System.nanoTime();
+        for (int k = 1; k < sampled; k++) {
+            action.accept(items.get(k));
+        }
+        long wall = System.nanoTime() - start;
+        long cpu = hasCpuTime ? clock.getCurrentThreadCpuTime() - cpuStart : -1;
+        // the first element is already done, so it is not counted
+        AdaptivePolicy.Decision decision = myPolicy.choose(items.size() - 1, sampled - 1, wall, cpu);
+        switch (decision.getStrategy()) {
+            case FORK_JOIN:
+                ForkJoinPool.commonPool().invoke(new ApplyTask<>(new SnapshotSpliterator<>(items, sampled, items.size()),
+                                                                 action, decision.getPartSize()));
+                break;
+            case VIRTUAL_THREADS:
+                applyInThreads(items, sampled, action, decision.getPartSize());
+                break;
+            default:
+                for (int k = sampled; k < items.size(); k++) {
+                    action.accept(items.get(k));
+                }
+        }
+        invalidateViews();
+    }
+
+    // decisions made by applyAdaptive so far
+    public AdaptivePolicy getPolicy () {
+        return myPolicy;
+    }
+
+    public int getParallelThreshold () {
+        return myParallelThreshold;
+    }
+
+    public void setParallelThreshold (int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + threshold);
+        }
+        myParallelThreshold = threshold;
+    }
+
+    // each part of the elements, starting at from, gets its own thread (older JVMs have only
+    // so many, other parts wait for one)
+    private void applyInThreads (List<E> items, int from, Consumer<E> action, int partSize) {
+        ExecutorService threads = VirtualThreads.newThreadPerTaskExecutor(MAX_PLATFORM_THREADS);
+        try {
+            List<Future<?>> parts = new ArrayList<>();
+            for (int start = from; start < items.size(); start += partSize) {
+                List<E> part = items.subList(start, Math.min(start + partSize, items.size()));
+                parts.add(threads.submit(() -> part.forEach(action)));
+            }
+            for (Future<?> p : parts) {
+                p.get();
+            }
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error)e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying", e);
+        }
+        finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // only worth running in parallel for holders above the threshold
+    // (elements are only looked at, so views stay up to date)
+    private Stream<E> reductionStream () {
+        List<E> items = mySnapshot;
+        return StreamSupport.stream(new SnapshotSpliterator<>(items), items.size() > myParallelThreshold);
+    }
+
+    // find elements by a key computed from them, without visiting the whole collection
+    public <K extends Comparable<? super K>> HolderIndex<E, K> index (Function<? super E, ? extends K> key) {
+        return attach(new HolderIndex<>(this, key));
+    }
+
+    // view is kept up to date until it is detached
+    public <V extends HolderView<E>> V attach (V view) {
+        myViews.add(view);
+        return view;
+    }
+
+    public void detach (HolderView<E> view) {
+        myViews.remove(view);
+    }
+
+    // lets views look at every element without being marked out of date
+    void forEachUnobserved (Consumer<E> action) {
+        mySnapshot.forEach(action);
+    }
+
+    // like apply, but never touches the shared copy, so it is safe on any thread
+    // (the originals hold the same elements, whatever the outside world did to the copy)
+    void forEachObserved (Consumer<E> action) {
+        mySnapshot.forEach(observed(action));
+    }
+
+    // tells views about each element right after action is done with it
+    Consumer<E> observed (Consumer<E> action) {
+        if (myViews.isEmpty()) {
+            return action;
+        }
+        return item -> {
+            action.accept(item);
+            for (HolderView<E> view : myViews) {
+                view.changed(item);
+            }
+        };
+    }
+
+    // elements were changed or replaced without telling the views about each one
+    void invalidateViews () {
+        for (HolderView<E> view : myViews) {
+            view.invalidate();
+        }
+    }
+
+    // changes every time the original collection is replaced
+    public int getVersion () {
+        return myVersion;
+    }
+
+    public Mode getMode () {
+        return myMode;
+    }
+
+    public Storage getStorage () {
+        return myStorage;
+    }
+
+    // only needed to reset collection after Client destroys it
+    private void reset () {
+        if (mySharedItems == null) {
+            mySharedItems = (myStorage == Storage.CHUNKED) ? new SharedChunks<>(myOriginalItems)
+                                                           : new SharedList<>(myOriginalItems);
+        }
+        else {
+            mySharedItems.restore(myOriginalItems);
+        }
+    }
+
+    // originals are never changed in place, they are replaced (copy-on-write)
+    private void publish (List<E> originals) {
+        myOriginalItems = originals;
+        mySnapshot = Collections.unmodifiableList(originals);
+        myVersion++;
+        invalidateViews();
+    }
+
+    public String toString () {
+        if (myMode == Mode.SNAPSHOT) {
+            // the shared copy is only repaired when it is given away, so it may be out of date
+            return mySnapshot.toString();
+        }
+        return mySharedItems.toString();
+    }
+
+
+    // the copy given to the outside world
+    private interface SharedItems<E> extends List<E> {
+        // make it the same as the originals again
+        void restore (List<E> originals);
+    }
+
+
+    // the copy given to the outside world, remembers which parts of it anyone changed
+    // so that restoring it only costs as much as the changes did
+    private static class SharedList<E> extends ArrayList<E> implements SharedItems<E> {
+        private static final long serialVersionUID = 1L;
+
+        // what this list was last restored from
+        private transient List<E> myOriginals;
+        // changes made any other way are not tracked, so the whole list must be restored
+        private int myTrackedModCount;
+        private boolean myHasViews;
+        // everything from here to the end may have moved
+        private int myMovedFrom;
+        // range of elements that were replaced in place
+        private int myReplacedFrom;
+        private int myReplacedTo;
+
+        public SharedList (List<E> originals) {
+            super(originals);
+            myOriginals = originals;
+            markRestored();
+        }
+
+        @Override
+        public E set (int index, E element) {
+            E old = super.set(index, element);
+            myReplacedFrom = Math.min(myReplacedFrom, index);
+            myReplacedTo = Math.max(myReplacedTo, index + 1);
+            return old;
+        }
+
+        @Override
+        public boolean add (E element) {
+            int from = size();
+            boolean tracked = isTracked();
+            super.add(element);
+            track(tracked, from);
+            return true;
+        }
+
+        @Override
+        public void add (int index, E element) {
+            boolean tracked = isTracked();
+            super.add(index, element);
+            track(tracked, index);
+        }
+
+        @Override
+        public boolean addAll (Collection<? extends E> items) {
+            int from = size();
+            boolean tracked = isTracked();
+            boolean changed = super.addAll(items);
+            track(tracked, from);
+            return changed;
+        }
+
+        @Override
+        public boolean addAll (int index, Collection<? extends E> items) {
+            boolean tracked = isTracked();
+            boolean changed = super.addAll(index, items);
+            track(tracked, index);
+            return changed;
+        }
+
+        // also used by this list's iterators
+        @Override
+        public E remove (int index) {
+            boolean tracked = isTracked();
+            E old = super.remove(index);
+            track(tracked, index);
+            return old;
+        }
+
+        @Override
+        public boolean remove (Object element) {
+            int index = indexOf(element);
+            if (index < 0) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+
+        @Override
+        public void clear () {
+            boolean tracked = isTracked();
+            super.clear();
+            track(tracked, 0);
+        }
+
+        // views can change elements without going through this list
+        @Override
+        public List<E> subList (int fromIndex, int toIndex) {
+            myHasViews = true;
+            return super.subList(fromIndex, toIndex);
+        }
+
+        // undo all changes since the last restore, only copies what was changed
+        @Override
+        public void restore (List<E> originals) {
+            if (originals != myOriginals || ! isTracked()) {
+                super.clear();
+                super.addAll(originals);
+            }
+            else if (myMovedFrom != Integer.MAX_VALUE || myReplacedFrom < myReplacedTo) {
+                int from = Math.min(myMovedFrom, Math.min(size(), originals.size()));
+                super.removeRange(from, size());
+                super.addAll(originals.subList(from, originals.size()));
+                for (int k = myReplacedFrom; k < Math.min(myReplacedTo, from); k++) {
+                    super.set(k, originals.get(k));
+                }
+            }
+            myOriginals = originals;
+            markRestored();
+        }
+
+        private boolean isTracked () {
+            return ! myHasViews && modCount == myTrackedModCount;
+        }
+
+        // a tracked structural change moved everything from the given index on
+        private void track (boolean wasTracked, int from) {
+            if (wasTracked) {
+                myTrackedModCount = modCount;
+            }
+            myMovedFrom = Math.min(myMovedFrom, from);
+        }
+
+        private void markRestored () {
+            myTrackedModCount = modCount;
+            myHasViews = false;
+            myMovedFrom = Integer.MAX_VALUE;
+            myReplacedFrom = Integer.MAX_VALUE;
+            myReplacedTo = 0;
+        }
+    }
+
+
+    // the copy given to the outside world when stored in chunks, restoring it only
+    // means sharing the originals' chunks again, whatever anyone did to it
+    private static final class SharedChunks<E> extends ChunkedList<E> implements SharedItems<E> {
+        private List<E> myOriginals;
+        private int myRestoredModCount;
+
+        // originals must be a ChunkedList
+        public SharedChunks (List<E> originals) {
+            restore(originals);
+        }
+
+        @Override
+        public void restore (List<E> originals) {
+            if (originals != myOriginals || modCount != myRestoredModCount || ! isSharingAll()) {
+                shareFrom((ChunkedList<E>)originals);
+                myOriginals = originals;
+                myRestoredModCount = modCount;
+            }
+        }
+    }
+
+
+    // cannot remove elements, fails if the originals are replaced while it is in use
+    private class SnapshotIterator implements Iterator<E> {
+        private final List<E> myItems = mySnapshot;
+        private final int myExpectedVersion = myVersion;
+        private int myIndex;
+
+        @Override
+        public boolean hasNext () {
+            return myIndex < myItems.size();
+        }
+
+        @Override
+        public E next () {
+            if (myVersion != myExpectedVersion) {
+                throw new ConcurrentModificationException();
+            }
+            if (! hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return myItems.get(myIndex++);
+        }
+
+        @Override
+        public void remove () {
+            throw new UnsupportedOperationException("ListHolder elements cannot be removed while iterating");
+        }
+    }
+
+
+    // walks part of a list that never changes, splits it exactly in half
+    private static class SnapshotSpliterator<E> implements Spliterator<E> {
+        private final List<E> myItems;
+        private final int myEnd;
+        private int myIndex;
+
+        public SnapshotSpliterator (List<E> items) {
+            this(items, 0, items.size());
+        }
+
+        private SnapshotSpliterator (List<E> items, int start, int end) {
+            myItems = items;
+            myIndex = start;
+            myEnd = end;
+        }
+
+        @Override
+        public boolean tryAdvance (Consumer<? super E> action) {
+            if (myIndex < myEnd) {
+                action.accept(myItems.get(myIndex++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining (Consumer<? super E> action) {
+            int start = myIndex;
+            myIndex = myEnd;
+            for (int k = start; k < myEnd; k++) {
+                action.accept(myItems.get(k));
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit () {
+            int middle = (myIndex + myEnd) >>> 1;
+            if (middle <= myIndex) {
+                return null;
+            }
+            Spliterator<E> prefix = new SnapshotSpliterator<>(myItems, myIndex, middle);
+            myIndex = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize () {
+            return myEnd - myIndex;
+        }
+
+        @Override
+        public int characteristics () {
+            return SIZED | SUBSIZED | ORDERED | IMMUTABLE;
+        }
+    }
+
+
+    // splits its part of the collection in half until it is small enough to do directly,
+    // the spliterator must be SIZED and SUBSIZED so both halves are always the same
+    private static class ApplyTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<E> myItems;
+        private final Consumer<E> myAction;
+        private final int myThreshold;
+
+        public ApplyTask (Spliterator<E> items, Consumer<E> action, int threshold) {
+            myItems = items;
+            myAction = action;
+            myThreshold = threshold;
+        }
+
+        @Override
+        protected void compute () {
+            Spliterator<E> prefix;
+            if (myItems.estimateSize() <= myThreshold || (prefix = myItems.trySplit()) == null) {
+                myItems.forEachRemaining(myAction);
+            }
+            else {
+                invokeAll(new ApplyTask<>(prefix, myAction, myThreshold),
+                          new ApplyTask<>(myItems, myAction, myThreshold));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package lambda;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * A holder for Counter values that lives in a file.
+ *
+ * The file is mapped directly into memory, so a restarted program can open it and use the
+ * values right away, without reading or converting them first. Changes made through the
+ * holder are written back to the file by the operating system (or right away by force()).
+ *
+ * The file always has the same layout, all in little-endian order:
+ *   4 bytes  magic number, the characters CNTR
+ *   4 bytes  layout version
+ *   4 bytes  number of values
+ *   4 bytes  unused, so values start on an 8 byte boundary
+ *   then each value, 4 bytes each
+ */
+class MappedCounterHolder extends OffHeapCounterHolder {
+    private static final int MAGIC = 0x434E5452;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    private MappedByteBuffer myFile;
+
+    private MappedCounterHolder (MappedByteBuffer file) {
+        super(file, file.slice(HEADER_SIZE, file.capacity() - HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+        myFile = file;
+    }
+
+    // create (or replace) the given file to hold the given values
+    public static MappedCounterHolder create (Path file, int... values) throws IOException {
+        MappedByteBuffer map = map(file, HEADER_SIZE + (long)values.length * Integer.BYTES);
+        map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, values.length).putInt(12, 0);
+        MappedCounterHolder result = new MappedCounterHolder(map);
+        result.counts().put(0, values);
+        return result;
+    }
+
+    public static MappedCounterHolder create (Path file, List<Counter> counters) throws IOException {
+        return create(file, counters.stream().mapToInt(Counter::getCount).toArray());
+    }
+
+    // use the values already in the given file
+    public static MappedCounterHolder open (Path file) throws IOException {
+        MappedByteBuffer map = map(file, -1);
+        if (map.capacity() < HEADER_SIZE || map.getInt(0) != MAGIC) {
+            throw new IOException("Not a counter file: " + file);
+        }
+        if (map.getInt(4) != VERSION) {
+            throw new IOException("Unsupported counter file version " + map.getInt(4) + ": " + file);
+        }
+        if (map.capacity() != HEADER_SIZE + (long)map.getInt(8) * Integer.BYTES) {
+            throw new IOException("Counter file is damaged: " + file);
+        }
+        return new MappedCounterHolder(map);
+    }
+
+    // write any changes to the file now, instead of whenever the operating system decides to
+    public void force () {
+        // fails if already closed
+        counts();
+        myFile.force();
+    }
+
+    // changes are saved first, then the file is unmapped (see OffHeapCounterHolder.close)
+    @Override
+    public void close () {
+        if (! isClosed()) {
+            force();
+            myFile = null;
+        }
+        super.close();
+    }
+
+    // size of -1 means to map the whole existing file, any other size replaces the file
+    private static MappedByteBuffer map (Path file, long size) throws IOException {
+        Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (size >= 0) {
+            options.addAll(List.of(StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+        }
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer result = channel.map(FileChannel.MapMode.READ_WRITE, 0, (size < 0) ? channel.size() : size);
+            result.order(ByteOrder.LITTLE_ENDIAN);
+            return result;
+        }
+    }
+}
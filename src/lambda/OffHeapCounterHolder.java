@@ -0,0 +1,150 @@
+package lambda;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+
+/**
+ * A holder for Counter values stored outside of the Java heap.
+ *
+ * Like CounterHolder, the values are stored side by side, but in native memory instead of an
+ * int array, so even tens of millions of them add nothing for the garbage collector to scan
+ * or copy. The holder should be closed when it is no longer needed (e.g., with
+ * try-with-resources), which gives the memory back right away; after that it can no longer be
+ * used. Closing must wait until no other thread is using the holder.
+ *
+ * Giving memory back early relies on sun.misc.Unsafe.invokeCleaner, found by reflection. On a
+ * JVM without it, close() only stops the holder from being used and the memory is freed by
+ * the garbage collector, whenever it notices that nothing refers to it anymore.
+ */
+class OffHeapCounterHolder implements CounterValues, AutoCloseable {
+    // frees a direct buffer's memory now, null if this JVM cannot
+    private static final Cleaner CLEANER = findCleaner();
+
+    private ByteBuffer myMemory;
+    private IntBuffer myCounts;
+
+    public OffHeapCounterHolder (int... values) {
+        this(allocate(values.length));
+        myCounts.put(0, values);
+    }
+
+    public OffHeapCounterHolder (List<Counter> counters) {
+        this(allocate(counters.size()));
+        for (int k = 0; k < counters.size(); k++) {
+            myCounts.put(k, counters.get(k).getCount());
+        }
+    }
+
+    private OffHeapCounterHolder (ByteBuffer memory) {
+        this(memory, memory.order(ByteOrder.nativeOrder()).asIntBuffer());
+    }
+
+    // use part of the given memory to store the values, all of it is freed when closed
+    protected OffHeapCounterHolder (ByteBuffer memory, IntBuffer counts) {
+        myMemory = memory;
+        myCounts = counts;
+    }
+
+    @Override
+    public int size () {
+        return counts().limit();
+    }
+
+    @Override
+    public int get (int index) {
+        return counts().get(index);
+    }
+
+    @Override
+    public void doSomething (int data) {
+        IntBuffer counts = counts();
+        for (int k = 0; k < counts.limit(); k++) {
+            counts.put(k, counts.get(k) + data);
+        }
+    }
+
+    @Override
+    public void doSomethingElse () {
+        IntBuffer counts = counts();
+        for (int k = 0; k < counts.limit(); k++) {
+            counts.put(k, counts.get(k) << 1);
+        }
+    }
+
+    // do not reveal memory
+    @Override
+    public void apply (IntUnaryOperator action) {
+        IntBuffer counts = counts();
+        for (int k = 0; k < counts.limit(); k++) {
+            counts.put(k, action.applyAsInt(counts.get(k)));
+        }
+    }
+
+    // give up the memory, closing again does nothing
+    @Override
+    public void close () {
+        if (myMemory != null) {
+            ByteBuffer memory = myMemory;
+            myMemory = null;
+            myCounts = null;
+            if (CLEANER != null) {
+                CLEANER.free(memory);
+            }
+        }
+    }
+
+    public boolean isClosed () {
+        return myCounts == null;
+    }
+
+    public String toString () {
+        StringBuilder result = new StringBuilder("[");
+        forEach(c -> result.append((result.length() > 1) ? ", " : "").append(c));
+        return result.append("]").toString();
+    }
+
+    // fails clearly instead of touching memory that was given up
+    protected IntBuffer counts () {
+        if (myCounts == null) {
+            throw new IllegalStateException("Holder is already closed");
+        }
+        return myCounts;
+    }
+
+    private static ByteBuffer allocate (int size) {
+        return ByteBuffer.allocateDirect(size * Integer.BYTES);
+    }
+
+    private static Cleaner findCleaner () {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            return memory -> {
+                try {
+                    invokeCleaner.invoke(unsafe, memory);
+                }
+                catch (ReflectiveOperationException e) {
+                    // leave it to the garbage collector
+                }
+            };
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+
+    // frees the memory of a direct or mapped buffer
+    private interface Cleaner {
+        void free (ByteBuffer memory);
+    }
+}
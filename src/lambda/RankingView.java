@@ -0,0 +1,98 @@
+package lambda;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+
+
+/**
+ * Keeps the elements of a ListHolder ordered by a score, e.g., a Counter's value.
+ *
+ * Instead of copying and sorting all the elements each time the highest ones are needed, the
+ * elements are kept sorted as apply() changes them, moving only the ones whose score changed.
+ * So getting the top K elements only costs K steps. Elements with equal scores stay in the
+ * order they were first seen.
+ *
+ * Only changes made through the holder are followed; changing elements any other way (e.g.,
+ * through getValues() or an iterator) needs a call to invalidate() afterwards, see HolderView.
+ *
+ * For example: holder.attach(new RankingView<>(holder, Counter::getCount)).top(3)
+ */
+class RankingView<E> extends HolderView<E> {
+    // highest score first
+    private static final Comparator<Entry<?>> ORDER =
+        Comparator.<Entry<?>>comparingInt(e -> e.myScore).reversed().thenComparingLong(e -> e.myOrder);
+
+    private final ToIntFunction<? super E> myScore;
+    private final NavigableSet<Entry<E>> myRanking = new TreeSet<>(ORDER);
+    private final Map<E, Entry<E>> myEntries = new IdentityHashMap<>();
+    private long myNextOrder;
+
+    public RankingView (ListHolder<E> holder, ToIntFunction<? super E> score) {
+        super(holder);
+        myScore = score;
+    }
+
+    // at most count elements, highest score first
+    public synchronized List<E> top (int count) {
+        refresh();
+        List<E> result = new ArrayList<>(Math.min(count, myRanking.size()));
+        Iterator<Entry<E>> entries = myRanking.iterator();
+        while (result.size() < count && entries.hasNext()) {
+            result.add(entries.next().myItem);
+        }
+        return result;
+    }
+
+    @Override
+    protected void clear () {
+        myRanking.clear();
+        myEntries.clear();
+        myNextOrder = 0;
+    }
+
+    @Override
+    protected void add (E item) {
+        if (! myEntries.containsKey(item)) {
+            Entry<E> entry = new Entry<>(item, myScore.applyAsInt(item), myNextOrder++);
+            myEntries.put(item, entry);
+            myRanking.add(entry);
+        }
+    }
+
+    @Override
+    protected void update (E item) {
+        Entry<E> entry = myEntries.get(item);
+        if (entry == null) {
+            add(item);
+            return;
+        }
+        int score = myScore.applyAsInt(item);
+        if (score != entry.myScore) {
+            // score is part of its position, so it must be taken out before the score changes
+            myRanking.remove(entry);
+            entry.myScore = score;
+            myRanking.add(entry);
+        }
+    }
+
+
+    // remembers the score an element was ranked with
+    private static class Entry<E> {
+        private final E myItem;
+        private final long myOrder;
+        private int myScore;
+
+        public Entry (E item, int score, long order) {
+            myItem = item;
+            myScore = score;
+            myOrder = order;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package lambda;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * A holder for more elements than fit in memory at once.
+ *
+ * Instead of copying a whole collection up front like ListHolder, it reads elements from its
+ * source one at a time as apply() passes over them, so the holder itself keeps none of them
+ * in memory. Like ListHolder, it never reveals its source to the outside world.
+ *
+ * A holder made from an Iterator or Spliterator can only be applied once, since its source can
+ * only be read once; a holder made from a file reads the file again on each call to apply().
+ */
+class StreamingHolder<E> {
+    private final Supplier<Stream<E>> mySource;
+
+    // each call to source must produce all the elements again
+    public StreamingHolder (Supplier<Stream<E>> source) {
+        mySource = source;
+    }
+
+    public StreamingHolder (Spliterator<E> source) {
+        this(once(() -> StreamSupport.stream(source, false)));
+    }
+
+    public StreamingHolder (Iterator<E> source) {
+        this(Spliterators.spliteratorUnknownSize(source, Spliterator.ORDERED));
+    }
+
+    // one element per line of the given file
+    public static <E> StreamingHolder<E> fromFile (Path file, Function<String, E> parser) {
+        return new StreamingHolder<>(() -> {
+            try {
+                return Files.lines(file).map(parser);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // accept lambda function, do not reveal source
+    public void apply (Consumer<E> action) {
+        try (Stream<E> items = mySource.get()) {
+            // each element can be forgotten as soon as action is done with it
+            items.forEachOrdered(action);
+        }
+    }
+
+    // a source that can only be read once
+    private static <E> Supplier<Stream<E>> once (Supplier<Stream<E>> source) {
+        AtomicBoolean isUsed = new AtomicBoolean();
+        return () -> {
+            if (isUsed.getAndSet(true)) {
+                throw new IllegalStateException("Source can only be read once");
+            }
+            return source.get();
+        };
+    }
+}
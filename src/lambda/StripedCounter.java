@@ -0,0 +1,84 @@
+package lambda;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * An AtomicCounter for values that very many threads add to at once.
+ *
+ * Like java.util.concurrent.atomic.LongAdder, additions first try the single shared count;
+ * once threads start to collide there, each thread adds to one of several separate cells
+ * instead, and the count is the sum of all of them. Additions get faster, but reading the
+ * count and doubling it now have to visit every cell. Doubling doubles each part atomically,
+ * but additions that happen during it may land before or after it.
+ */
+class StripedCounter extends AtomicCounter {
+    private static final VarHandle CELLS;
+    private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(int[].class);
+    static {
+        try {
+            CELLS = MethodHandles.lookup().findVarHandle(StripedCounter.class, "myCells", int[].class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    // one cell per cache line, so threads using neighboring cells do not slow each other down
+    private static final int PADDING = 16;
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    // only created once there is contention
+    private volatile int[] myCells;
+
+    public StripedCounter (int value) {
+        super(value);
+    }
+
+    @Override
+    public void doSomething (int data) {
+        int[] cells = myCells;
+        if (cells == null) {
+            int current = (int) COUNT.getVolatile(this);
+            if (COUNT.compareAndSet(this, current, current + data)) {
+                return;
+            }
+            CELLS.compareAndSet(this, null, new int[STRIPES * PADDING]);
+            cells = myCells;
+        }
+        CELL.getAndAdd(cells, stripe() * PADDING, data);
+    }
+
+    @Override
+    public void doSomethingElse () {
+        super.doSomethingElse();
+        int[] cells = myCells;
+        if (cells != null) {
+            for (int k = 0; k < cells.length; k += PADDING) {
+                int current;
+                do {
+                    current = (int) CELL.getVolatile(cells, k);
+                }
+                while (! CELL.compareAndSet(cells, k, current, current * 2));
+            }
+        }
+    }
+
+    @Override
+    public int getCount () {
+        int total = super.getCount();
+        int[] cells = myCells;
+        if (cells != null) {
+            for (int k = 0; k < cells.length; k += PADDING) {
+                total += (int) CELL.getVolatile(cells, k);
+            }
+        }
+        return total;
+    }
+
+    // spread threads over the cells, a thread always uses the same one
+    private static int stripe () {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+    }
+}
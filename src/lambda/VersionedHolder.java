@@ -0,0 +1,196 @@
+package lambda;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * A holder that never changes elements a reader might be looking at.
+ *
+ * Each call to apply() works on fresh copies of the elements and then makes them the current
+ * version all at once. A reader pins a version and sees exactly that version until it closes
+ * the pin, however many times apply() runs meanwhile, and neither side ever waits for the other.
+ * Once a version is no longer current and nobody has it pinned, it is reclaimed: its storage
+ * is reused for a later version.
+ *
+ * For example, with Counters:
+ *   VersionedHolder<Counter> holder = new VersionedHolder<>(counters, c -> new Counter(c.getCount()));
+ *   try (VersionedHolder.Pin<Counter> pin = holder.pin()) { ... }
+ *
+ * Readers must only look at the elements they are given, never change them.
+ */
+class VersionedHolder<E> {
+    private final UnaryOperator<E> myCopier;
+    // storage of a reclaimed version, ready to be reused
+    private final AtomicReference<Object[]> mySpare = new AtomicReference<>();
+    private final AtomicInteger myLiveVersions = new AtomicInteger();
+    private volatile Version<E> myCurrent;
+
+    // copier makes an independent copy of an element
+    public VersionedHolder (List<E> args, UnaryOperator<E> copier) {
+        myCopier = copier;
+        Object[] items = new Object[args.size()];
+        for (int k = 0; k < items.length; k++) {
+            items[k] = copier.apply(args.get(k));
+        }
+        myCurrent = new Version<>(this, items, 1);
+    }
+
+    // accept lambda function, it changes copies that become the next version when all are done
+    // (only one apply runs at a time, readers are never blocked)
+    public synchronized void apply (Consumer<E> action) {
+        Version<E> old = myCurrent;
+        Object[] items = mySpare.getAndSet(null);
+        if (items == null || items.length != old.myItems.length) {
+            items = new Object[old.myItems.length];
+        }
+        for (int k = 0; k < items.length; k++) {
+            E copy = myCopier.apply(old.get(k));
+            action.accept(copy);
+            items[k] = copy;
+        }
+        myCurrent = new Version<>(this, items, old.myNumber + 1);
+        old.retire();
+    }
+
+    // see one consistent version until the pin is closed
+    public Pin<E> pin () {
+        while (true) {
+            Version<E> current = myCurrent;
+            // fails only if this version was reclaimed after a newer one became current
+            if (current.tryPin()) {
+                return new Pin<>(current);
+            }
+        }
+    }
+
+    // number of the current version, starting at 1
+    public long getVersion () {
+        return myCurrent.myNumber;
+    }
+
+    // versions that are current or still pinned
+    public int getLiveVersions () {
+        return myLiveVersions.get();
+    }
+
+    public String toString () {
+        try (Pin<E> pin = pin()) {
+            return pin.toString();
+        }
+    }
+
+
+    // one reader's hold on a version, only valid until closed
+    public static class Pin<E> implements AutoCloseable {
+        private Version<E> myVersion;
+
+        private Pin (Version<E> version) {
+            myVersion = version;
+        }
+
+        public long getVersion () {
+            return version().myNumber;
+        }
+
+        public int size () {
+            return version().myItems.length;
+        }
+
+        public E get (int index) {
+            return version().get(index);
+        }
+
+        public void forEach (Consumer<? super E> action) {
+            Version<E> version = version();
+            for (int k = 0; k < version.myItems.length; k++) {
+                action.accept(version.get(k));
+            }
+        }
+
+        // lets the version be reclaimed, closing again does nothing
+        @Override
+        public void close () {
+            if (myVersion != null) {
+                myVersion.unpin();
+                myVersion = null;
+            }
+        }
+
+        public String toString () {
+            StringBuilder result = new StringBuilder("[");
+            forEach(item -> result.append((result.length() > 1) ? ", " : "").append(item));
+            return result.append("]").toString();
+        }
+
+        private Version<E> version () {
+            if (myVersion == null) {
+                throw new IllegalStateException("Pin is already closed");
+            }
+            return myVersion;
+        }
+    }
+
+
+    // elements as they were after one apply
+    private static class Version<E> {
+        // no longer current and nobody holds it
+        private static final int RECLAIMED = -1;
+
+        private final VersionedHolder<E> myHolder;
+        private final Object[] myItems;
+        private final long myNumber;
+        // number of readers, or RECLAIMED
+        private final AtomicInteger myPins = new AtomicInteger();
+        private volatile boolean myIsRetired;
+
+        public Version (VersionedHolder<E> holder, Object[] items, long number) {
+            myHolder = holder;
+            myItems = items;
+            myNumber = number;
+            holder.myLiveVersions.incrementAndGet();
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get (int index) {
+            return (E)myItems[index];
+        }
+
+        public boolean tryPin () {
+            int pins;
+            do {
+                pins = myPins.get();
+                if (pins == RECLAIMED) {
+                    return false;
+                }
+            }
+            while (! myPins.compareAndSet(pins, pins + 1));
+            return true;
+        }
+
+        public void unpin () {
+            if (myPins.decrementAndGet() == 0 && myIsRetired) {
+                reclaim();
+            }
+        }
+
+        // a newer version is current now
+        public void retire () {
+            myIsRetired = true;
+            if (myPins.get() == 0) {
+                reclaim();
+            }
+        }
+
+        // whoever wins the race to mark it gives its storage back to the holder
+        private void reclaim () {
+            if (myPins.compareAndSet(0, RECLAIMED)) {
+                myHolder.mySpare.set(myItems);
+                myHolder.myLiveVersions.decrementAndGet();
+            }
+        }
+    }
+}
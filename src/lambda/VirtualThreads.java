@@ -0,0 +1,41 @@
+package lambda;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Creates virtual threads when the JVM running this code has them (Java 21 and later).
+ *
+ * Looked up by reflection, so this code still compiles and runs on older JVMs,
+ * which get ordinary platform threads instead.
+ */
+final class VirtualThreads {
+    private VirtualThreads () {
+        // only static methods
+    }
+
+    // one new thread per task, shut it down when done
+    public static ExecutorService newThreadPerTaskExecutor () {
+        ExecutorService result = newVirtualThreadPerTaskExecutor();
+        // platform threads cost much more, but still give each task its own thread
+        return (result != null) ? result : Executors.newCachedThreadPool();
+    }
+
+    // same, but without virtual threads no more than the given number of tasks run at once,
+    // the rest wait for a thread to be free
+    public static ExecutorService newThreadPerTaskExecutor (int maxPlatformThreads) {
+        ExecutorService result = newVirtualThreadPerTaskExecutor();
+        return (result != null) ? result : Executors.newFixedThreadPool(maxPlatformThreads);
+    }
+
+    // null if the JVM does not have virtual threads
+    private static ExecutorService newVirtualThreadPerTaskExecutor () {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}